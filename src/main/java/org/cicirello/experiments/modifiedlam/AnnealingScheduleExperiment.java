@@ -19,6 +19,7 @@
 
 package org.cicirello.experiments.modifiedlam;
 
+import java.io.PrintStream;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 
@@ -113,6 +114,16 @@ public class AnnealingScheduleExperiment {
 	 * @param args There are no command line arguments.
 	 */
     public static void main(String[] args) {
+		TrialRecording recording = TrialRecording.start("AnnealingSchedule");
+		run(System.out);
+		recording.stop();
+	}
+	
+	/**
+	 * Runs the experiment, writing the results to a stream.
+	 * @param out The stream to which the results are written.
+	 */
+	public static void run(PrintStream out) {
 		final int WARMUP_NUM_SAMPLES = 10;
 		final int NUM_SAMPLES = 100;
 		final int MIN_RUNLENGTH = 2000;
@@ -136,7 +147,7 @@ public class AnnealingScheduleExperiment {
 		
 		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
 		
-		System.out.printf("%7s\t%4s\t%12s\t%12s\n",
+		out.printf("%7s\t%4s\t%12s\t%12s\n",
 			"L",
 			"R",
 			"cpu1",
@@ -148,23 +159,32 @@ public class AnnealingScheduleExperiment {
 			final int MAX_RESTARTS = MAX_EVALUATIONS / L;
 			for (int R = MIN_RESTARTS; R <= MAX_RESTARTS; R *= 2) {
 				for (int i = 0; i < NUM_SAMPLES; i++) {
+					TrialEvent trial1 = new TrialEvent();
+					TrialEvent trial2 = new TrialEvent();
+					trial1.begin();
 					long start = bean.getCurrentThreadCpuTime();
 					double x = runOriginal(L, R);
 					long mid = bean.getCurrentThreadCpuTime();
+					trial1.end();
+					trial2.begin();
+					long start2 = bean.getCurrentThreadCpuTime();
 					double y = runOptimized(L, R);
 					long end = bean.getCurrentThreadCpuTime();
+					trial2.end();
+					trial1.record("AnnealingSchedule", L, R, i, "ModifiedLamOriginal", mid-start, Double.NaN);
+					trial2.record("AnnealingSchedule", L, R, i, "ModifiedLam", end-start2, Double.NaN);
 					// Do something with return values to avoid JVM from optimizing away the calls.
 					totalDiff += (x-y);
 					
-					System.out.printf("%7d\t%4d\t%12d\t%12d\n",
+					out.printf("%7d\t%4d\t%12d\t%12d\n",
 						L,
 						R,
 						mid-start,
-						end-mid
+						end-start2
 					);
 				}
 			}
 		}
-		System.out.println("Experiment finished: " + totalDiff);
+		out.println("Experiment finished: " + totalDiff);
 	}
 }
\ No newline at end of file
@@ -19,6 +19,7 @@
 
 package org.cicirello.experiments.modifiedlam;
 
+import java.io.PrintStream;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 
@@ -64,6 +65,16 @@ public class BoundMaxExperiment {
 	 * @param args There are no command line arguments.
 	 */
     public static void main(String[] args) {
+		TrialRecording recording = TrialRecording.start("BoundMax");
+		run(System.out);
+		recording.stop();
+	}
+	
+	/**
+	 * Runs the experiment, writing the results to a stream.
+	 * @param out The stream to which the results are written.
+	 */
+	public static void run(PrintStream out) {
 		final int WARMUP_NUM_SAMPLES = 10;
 		final int NUM_SAMPLES = 100;
 		final int N = 650;
@@ -99,7 +110,7 @@ public class BoundMaxExperiment {
 		
 		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
 		
-		System.out.printf("%7s\t%5s\t%5s\t%12s\t%12s\n",
+		out.printf("%7s\t%5s\t%5s\t%12s\t%12s\n",
 			"length",
 			"cost1",
 			"cost2",
@@ -124,18 +135,27 @@ public class BoundMaxExperiment {
 					new ModifiedLam()
 				);
 				
+				TrialEvent trial1 = new TrialEvent();
+				TrialEvent trial2 = new TrialEvent();
+				trial1.begin();
 				long start = bean.getCurrentThreadCpuTime();
 				sa1.optimize(runLength);
 				long mid = bean.getCurrentThreadCpuTime();
+				trial1.end();
+				trial2.begin();
+				long start2 = bean.getCurrentThreadCpuTime();
 				sa2.optimize(runLength);
 				long end = bean.getCurrentThreadCpuTime();
+				trial2.end();
+				trial1.record("BoundMax", runLength, 1, i, "ModifiedLamOriginal", mid-start, sa1.getProgressTracker().getCost());
+				trial2.record("BoundMax", runLength, 1, i, "ModifiedLam", end-start2, sa2.getProgressTracker().getCost());
 				
-				System.out.printf("%7d\t%5d\t%5d\t%12d\t%12d\n",
+				out.printf("%7d\t%5d\t%5d\t%12d\t%12d\n",
 					runLength,
 					sa1.getProgressTracker().getCost(), 
 					sa2.getProgressTracker().getCost(),
 					mid-start,
-					end-mid
+					end-start2
 				);
 			}
 		}
@@ -0,0 +1,126 @@
+/*
+ * Experiments with the original version, and optimized version,
+ * of the Modified Lam annealing schedule.
+ * Copyright (C) 2020  Vincent A. Cicirello
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.cicirello.experiments.modifiedlam;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * <p>Calibration microbenchmark, for normalizing cpu times measured on
+ * different machines.  The workload mimics the inner loop of the annealing
+ * schedule experiment (exponentials, divisions, and branches on a stream of
+ * pseudorandom values), but is implemented here in plain Java, so that it
+ * measures the speed of the machine and JVM without depending on the version
+ * of the Chips-n-Salsa library, whose performance is what we want to compare.</p>
+ *
+ * <p>Running this program prints the median cpu time, in nanoseconds, of one
+ * repetition of the workload.  Save it alongside a set of results, such as in
+ * a file calibration.txt, so that {@link RegressionGate} can later normalize
+ * those results for machine speed.</p>
+ *
+ * @author <a href=https://www.cicirello.org/ target=_top>Vincent A. Cicirello</a>,
+ * <a href=https://www.cicirello.org/ target=_top>https://www.cicirello.org/</a>
+ */
+public final class Calibration {
+
+	private static final int WARMUP_NUM_SAMPLES = 10;
+	private static final int NUM_SAMPLES = 31;
+	private static final int WORK_LENGTH = 4000000;
+
+	/*
+	 * Results of the workload are stored here to avoid the JVM from
+	 * optimizing away the work.
+	 */
+	private static volatile double sink;
+
+	private Calibration() {}
+
+	/**
+	 * Runs the calibration microbenchmark on the calling thread.
+	 *
+	 * @return The median cpu time, in nanoseconds, of one repetition of the workload.
+	 */
+	public static double measure() {
+		double total = 0;
+		for (int i = 0; i < WARMUP_NUM_SAMPLES; i++) {
+			total += work(i);
+		}
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		long[] times = new long[NUM_SAMPLES];
+		for (int i = 0; i < NUM_SAMPLES; i++) {
+			long start = bean.getCurrentThreadCpuTime();
+			total += work(i);
+			times[i] = bean.getCurrentThreadCpuTime() - start;
+		}
+		sink = total;
+		Arrays.sort(times);
+		return times[NUM_SAMPLES / 2];
+	}
+
+	/**
+	 * Reads a calibration value, in the format printed by this program.
+	 *
+	 * @param file The path to the file.
+	 *
+	 * @return The calibration value, in nanoseconds.
+	 *
+	 * @throws IOException if the file cannot be read.
+	 * @throws IllegalArgumentException if the file does not contain a positive number.
+	 */
+	public static double read(Path file) throws IOException {
+		String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+		double value;
+		try {
+			value = Double.parseDouble(text.split("\\s+")[0]);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a calibration file: " + file, e);
+		}
+		if (!(value > 0)) {
+			throw new IllegalArgumentException("Calibration value must be positive: " + file);
+		}
+		return value;
+	}
+
+	/**
+	 * Runs the calibration microbenchmark, and prints the result.
+	 * @param args There are no command line arguments.
+	 */
+	public static void main(String[] args) {
+		System.out.printf("%.0f\n", measure());
+	}
+
+	private static double work(int seed) {
+		long state = 0x9E3779B97F4A7C15L * (seed + 1);
+		double temperature = 1000;
+		long count = 0;
+		for (int i = 0; i < WORK_LENGTH; i++) {
+			state = state * 6364136223846793005L + 1442695040888963407L;
+			double delta = (state >>> 11) * 0x1.0p-53 * 10;
+			if ((i & 1) == 0 || Math.exp(-delta / temperature) > 0.5) count++;
+			temperature = temperature * 0.999999 + 1.0 / (i + 1);
+		}
+		return count + temperature;
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * Experiments with the original version, and optimized version,
+ * of the Modified Lam annealing schedule.
+ * Copyright (C) 2020  Vincent A. Cicirello
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.cicirello.experiments.modifiedlam;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * <p>One submission of an experiment to the {@link ExperimentServer}.
+ * The output of the experiment is written to a result file, and is also
+ * kept in memory so that any number of clients can stream it while the
+ * experiment is running, or after it has finished.</p>
+ *
+ * @author <a href=https://www.cicirello.org/ target=_top>Vincent A. Cicirello</a>,
+ * <a href=https://www.cicirello.org/ target=_top>https://www.cicirello.org/</a>
+ */
+final class ExperimentJob implements Runnable {
+
+	/**
+	 * The states of a job.
+	 */
+	enum State { QUEUED, RUNNING, DONE, FAILED }
+
+	private final int id;
+	private final String experiment;
+	private final Consumer<PrintStream> sweep;
+	private final Path completeFile;
+	private Path resultFile;
+
+	private State state;
+	private byte[] output;
+	private int size;
+
+	/**
+	 * Constructs a job.
+	 *
+	 * @param id The id of the job.
+	 * @param experiment The name of the experiment.
+	 * @param sweep Runs the experiment, writing the results to the stream passed to it.
+	 * @param resultFile The file to which the results are moved when the experiment completes.
+	 */
+	ExperimentJob(int id, String experiment, Consumer<PrintStream> sweep, Path resultFile) {
+		this.id = id;
+		this.experiment = experiment;
+		this.sweep = sweep;
+		completeFile = resultFile;
+		this.resultFile = resultFile.resolveSibling(resultFile.getFileName() + ".partial");
+		state = State.QUEUED;
+		output = new byte[8192];
+	}
+
+	/**
+	 * Gets the id of the job.
+	 * @return The id of the job.
+	 */
+	int id() {
+		return id;
+	}
+
+	/**
+	 * Gets the name of the experiment.
+	 * @return The name of the experiment.
+	 */
+	String experiment() {
+		return experiment;
+	}
+
+	/**
+	 * Gets the file to which the results are written. Until the job finishes,
+	 * the results are written to a file with a .partial suffix, which is moved
+	 * to the result file if the job completes, or renamed with a .failed suffix
+	 * if the job fails.
+	 * @return The result file.
+	 */
+	synchronized Path resultFile() {
+		return resultFile;
+	}
+
+	/**
+	 * Gets the current state of the job.
+	 * @return The state of the job.
+	 */
+	synchronized State state() {
+		return state;
+	}
+
+	/**
+	 * Runs the experiment, on the calling thread, since the experiments
+	 * measure the cpu time of the current thread.
+	 */
+	@Override
+	public void run() {
+		synchronized (this) {
+			state = State.RUNNING;
+		}
+		State outcome = State.FAILED;
+		Path partialFile = resultFile();
+		Path failedFile = completeFile.resolveSibling(completeFile.getFileName() + ".failed");
+		Path finalFile = partialFile;
+		try {
+			try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(partialFile));
+				PrintStream out = new PrintStream(new Tee(file), false, StandardCharsets.UTF_8)) {
+				try {
+					sweep.accept(out);
+					out.flush();
+					if (!out.checkError()) outcome = State.DONE;
+				} catch (RuntimeException e) {
+					out.println("Experiment failed: " + e);
+				}
+			}
+		} catch (IOException e) {
+			fail(e);
+		} finally {
+			// Only complete results get the name of the result file, so that partial
+			// results are never served, or analyzed, as complete results. If the server
+			// is killed during the sweep, the .partial file is left behind.
+			if (Files.exists(partialFile)) {
+				Path target = outcome == State.DONE ? completeFile : failedFile;
+				try {
+					Files.move(partialFile, target, StandardCopyOption.REPLACE_EXISTING);
+					finalFile = target;
+				} catch (IOException e) {
+					outcome = State.FAILED;
+					fail(e);
+				}
+			}
+			synchronized (this) {
+				resultFile = finalFile;
+				state = outcome;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Waits until there is output beyond the given position, or the job has
+	 * finished, and returns that output.
+	 *
+	 * @param from The number of bytes of output that the caller has already consumed.
+	 *
+	 * @return The output from position from onward, which is empty only if the job
+	 * has finished and there is no more output.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	synchronized byte[] awaitOutput(int from) throws InterruptedException {
+		while (size <= from && (state == State.QUEUED || state == State.RUNNING)) {
+			wait();
+		}
+		return from < size ? Arrays.copyOfRange(output, from, size) : new byte[0];
+	}
+
+	private void fail(IOException e) {
+		byte[] message = ("Experiment failed: " + e + "\n").getBytes(StandardCharsets.UTF_8);
+		append(message, 0, message.length);
+	}
+
+	private synchronized void append(byte[] b, int off, int len) {
+		if (size + len > output.length) {
+			output = Arrays.copyOf(output, Math.max(2 * output.length, size + len));
+		}
+		System.arraycopy(b, off, output, size, len);
+		size += len;
+		notifyAll();
+	}
+
+	/*
+	 * Writes to the result file, and to the in-memory output.
+	 */
+	private final class Tee extends OutputStream {
+
+		private final OutputStream file;
+
+		private Tee(OutputStream file) {
+			this.file = file;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte)b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			file.write(b, off, len);
+			append(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			file.flush();
+		}
+	}
+}
@@ -0,0 +1,297 @@
+/*
+ * Experiments with the original version, and optimized version,
+ * of the Modified Lam annealing schedule.
+ * Copyright (C) 2020  Vincent A. Cicirello
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.cicirello.experiments.modifiedlam;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>The data from one of the result files produced by the experiment
+ * programs, grouped by cell.  A cell is the set of samples that were
+ * run with the same parameters.  For the OneMax, BoundMax, Permutation in a
+ * Haystack, and Polynomial Root Finding experiments, a cell corresponds to
+ * one run length, and the file has the columns:<br>
+ * length  cost1  cost2  cpu1  cpu2<br>
+ * For the experiment that uses the annealing schedules independent from
+ * simulated annealing, a cell corresponds to a run length and number of
+ * restarts, and the file has the columns:<br>
+ * L  R  cpu1  cpu2</p>
+ *
+ * <p>The format is detected from the header line, so the same loader works
+ * for all 5 result files.  Lines after the data, such as the "Experiment finished"
+ * line of the annealing schedule experiment, are ignored.</p>
+ *
+ * @author <a href=https://www.cicirello.org/ target=_top>Vincent A. Cicirello</a>,
+ * <a href=https://www.cicirello.org/ target=_top>https://www.cicirello.org/</a>
+ */
+public final class ExperimentResults {
+
+	private final boolean annealOnly;
+	private final Map<Cell.Key, Cell> cells;
+
+	private ExperimentResults(boolean annealOnly, Map<Cell.Key, Cell> cells) {
+		this.annealOnly = annealOnly;
+		this.cells = cells;
+	}
+
+	/**
+	 * Loads the results from a file produced by one of the experiment programs.
+	 *
+	 * @param file The path to the result file.
+	 *
+	 * @return The results, grouped by cell.
+	 *
+	 * @throws IOException if the file cannot be read.
+	 * @throws IllegalArgumentException if the file is not in the format of
+	 * one of the experiment programs.
+	 */
+	public static ExperimentResults load(Path file) throws IOException {
+		try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String header = in.readLine();
+			if (header == null) {
+				throw new IllegalArgumentException("Empty result file: " + file);
+			}
+			String[] columns = header.trim().split("\\s+");
+			boolean annealOnly = columns.length == 4 && columns[1].equals("R");
+			if (!annealOnly && columns.length != 5) {
+				throw new IllegalArgumentException("Unrecognized header in " + file + ": " + header);
+			}
+			TreeMap<Cell.Key, Cell.Builder> builders = new TreeMap<Cell.Key, Cell.Builder>();
+			String line;
+			while ((line = in.readLine()) != null) {
+				line = line.trim();
+				if (line.length() == 0) continue;
+				if (line.startsWith("Experiment")) break;
+				String[] values = line.split("\\s+");
+				if (values.length != columns.length) {
+					throw new IllegalArgumentException("Malformed line in " + file + ": " + line);
+				}
+				Cell.Key key = new Cell.Key(
+					Long.parseLong(values[0]),
+					annealOnly ? Integer.parseInt(values[1]) : 1
+				);
+				Cell.Builder b = builders.get(key);
+				if (b == null) {
+					b = new Cell.Builder(key, annealOnly);
+					builders.put(key, b);
+				}
+				if (annealOnly) {
+					b.add(Double.NaN, Double.NaN, Long.parseLong(values[2]), Long.parseLong(values[3]));
+				} else {
+					b.add(
+						Double.parseDouble(values[1]),
+						Double.parseDouble(values[2]),
+						Long.parseLong(values[3]),
+						Long.parseLong(values[4])
+					);
+				}
+			}
+			TreeMap<Cell.Key, Cell> cells = new TreeMap<Cell.Key, Cell>();
+			for (Map.Entry<Cell.Key, Cell.Builder> e : builders.entrySet()) {
+				cells.put(e.getKey(), e.getValue().build());
+			}
+			return new ExperimentResults(annealOnly, Collections.unmodifiableMap(cells));
+		}
+	}
+
+	/**
+	 * Checks whether the results are from the experiment that uses the
+	 * annealing schedules independent from simulated annealing, in which
+	 * case cells are keyed by run length and number of restarts, and there
+	 * is no cost data.
+	 *
+	 * @return true if the results are from the annealing schedule experiment.
+	 */
+	public boolean isAnnealOnly() {
+		return annealOnly;
+	}
+
+	/**
+	 * Gets the cells, ordered by run length, and then by number of restarts.
+	 *
+	 * @return The cells.
+	 */
+	public Collection<Cell> cells() {
+		return cells.values();
+	}
+
+	/**
+	 * Gets the cell with the given parameters.
+	 *
+	 * @param key The parameters of the cell.
+	 *
+	 * @return The cell, or null if there is no such cell in these results.
+	 */
+	public Cell get(Cell.Key key) {
+		return cells.get(key);
+	}
+
+	/**
+	 * The samples of one cell of an experiment.  Index 1 of the
+	 * cost and cpu arrays corresponds to the original Modified Lam,
+	 * and index 2 to the optimized version.  CPU times are in nanoseconds.
+	 */
+	public static final class Cell {
+
+		private final Key key;
+		private final double[] cost1;
+		private final double[] cost2;
+		private final double[] cpu1;
+		private final double[] cpu2;
+
+		private Cell(Key key, double[] cost1, double[] cost2, double[] cpu1, double[] cpu2) {
+			this.key = key;
+			this.cost1 = cost1;
+			this.cost2 = cost2;
+			this.cpu1 = cpu1;
+			this.cpu2 = cpu2;
+		}
+
+		/**
+		 * Gets the parameters of this cell.
+		 * @return The parameters of this cell.
+		 */
+		public Key key() { return key; }
+
+		/**
+		 * Gets the number of samples in this cell.
+		 * @return The number of samples.
+		 */
+		public int size() { return cpu1.length; }
+
+		/**
+		 * Gets the cost values of the original Modified Lam.
+		 * @return The cost values, or null for the annealing schedule experiment.
+		 */
+		public double[] cost1() { return cost1; }
+
+		/**
+		 * Gets the cost values of the optimized Modified Lam.
+		 * @return The cost values, or null for the annealing schedule experiment.
+		 */
+		public double[] cost2() { return cost2; }
+
+		/**
+		 * Gets the cpu times, in nanoseconds, of the original Modified Lam.
+		 * @return The cpu times.
+		 */
+		public double[] cpu1() { return cpu1; }
+
+		/**
+		 * Gets the cpu times, in nanoseconds, of the optimized Modified Lam.
+		 * @return The cpu times.
+		 */
+		public double[] cpu2() { return cpu2; }
+
+		/**
+		 * The parameters that identify a cell: run length and number of restarts.
+		 * The number of restarts is 1 for all experiments other than the
+		 * annealing schedule experiment.
+		 */
+		public static final class Key implements Comparable<Key> {
+
+			private final long runLength;
+			private final int restarts;
+
+			/**
+			 * Constructs a cell key.
+			 * @param runLength The run length.
+			 * @param restarts The number of restarts.
+			 */
+			public Key(long runLength, int restarts) {
+				this.runLength = runLength;
+				this.restarts = restarts;
+			}
+
+			/**
+			 * Gets the run length.
+			 * @return The run length.
+			 */
+			public long runLength() { return runLength; }
+
+			/**
+			 * Gets the number of restarts.
+			 * @return The number of restarts.
+			 */
+			public int restarts() { return restarts; }
+
+			@Override
+			public int compareTo(Key other) {
+				int c = Long.compare(runLength, other.runLength);
+				return c != 0 ? c : Integer.compare(restarts, other.restarts);
+			}
+
+			@Override
+			public boolean equals(Object other) {
+				if (!(other instanceof Key)) return false;
+				Key k = (Key)other;
+				return runLength == k.runLength && restarts == k.restarts;
+			}
+
+			@Override
+			public int hashCode() {
+				return 31 * Long.hashCode(runLength) + restarts;
+			}
+		}
+
+		private static final class Builder {
+
+			private final Key key;
+			private final boolean annealOnly;
+			private final ArrayList<double[]> rows;
+
+			private Builder(Key key, boolean annealOnly) {
+				this.key = key;
+				this.annealOnly = annealOnly;
+				rows = new ArrayList<double[]>();
+			}
+
+			private void add(double c1, double c2, long t1, long t2) {
+				rows.add(new double[] { c1, c2, t1, t2 });
+			}
+
+			private Cell build() {
+				int n = rows.size();
+				double[] cost1 = annealOnly ? null : new double[n];
+				double[] cost2 = annealOnly ? null : new double[n];
+				double[] cpu1 = new double[n];
+				double[] cpu2 = new double[n];
+				for (int i = 0; i < n; i++) {
+					double[] row = rows.get(i);
+					if (!annealOnly) {
+						cost1[i] = row[0];
+						cost2[i] = row[1];
+					}
+					cpu1[i] = row[2];
+					cpu2[i] = row[3];
+				}
+				return new Cell(key, cost1, cost2, cpu1, cpu2);
+			}
+		}
+	}
+}
@@ -0,0 +1,293 @@
+/*
+ * Experiments with the original version, and optimized version,
+ * of the Modified Lam annealing schedule.
+ * Copyright (C) 2020  Vincent A. Cicirello
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.cicirello.experiments.modifiedlam;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <p>Long-lived local experiment service, so that repeated sweeps do not pay
+ * for starting the JVM and Maven, and later sweeps run on an already warmed
+ * up JIT. The 5 experiments can be submitted as named jobs over HTTP. Submitted
+ * jobs are queued, and run on a bounded pool of cpu threads, while a separate
+ * pool of threads handles the HTTP connections and streams output to clients.</p>
+ *
+ * <p>Usage:<br>
+ * ExperimentServer [port [resultDirectory [cpuThreads]]]<br>
+ * where port defaults to 8642, resultDirectory (where the result file of each job
+ * is written) defaults to results, and cpuThreads defaults to 1. Running more than
+ * one sweep at a time makes the sweeps compete for the cpu, and for the memory bandwidth
+ * and caches, which distorts the cpu times they measure, so only use more than 1 cpu thread
+ * on a machine with idle cores to spare. The server only accepts connections from the
+ * local machine.</p>
+ *
+ * <p>Endpoints:</p>
+ * <ul>
+ * <li>GET /experiments: Lists the names of the experiments: anneal, onemax,
+ *     boundmax, haystack, and roots, as in the names of the result files.</li>
+ * <li>POST /jobs/name: Queues a sweep of the named experiment, and responds with the id of the job.</li>
+ * <li>GET /jobs: Lists the jobs, with their states and result files.</li>
+ * <li>GET /jobs/id: Streams the results of a job as they are produced, until the job finishes.</li>
+ * <li>GET /results/file: Serves a result file from the result directory, including those from
+ *     earlier runs of the server. A job writes its results to a file with a .partial suffix, which
+ *     is not served, and which gets the name of the result file only when the job completes. The
+ *     partial results of a failed job are renamed with a .failed suffix instead.</li>
+ * </ul>
+ *
+ * <p>For example, with curl:<br>
+ * curl -X POST http://localhost:8642/jobs/onemax<br>
+ * curl http://localhost:8642/jobs/1 &gt; onemax.txt</p>
+ *
+ * @author <a href=https://www.cicirello.org/ target=_top>Vincent A. Cicirello</a>,
+ * <a href=https://www.cicirello.org/ target=_top>https://www.cicirello.org/</a>
+ */
+public class ExperimentServer {
+
+	private final Map<String, Consumer<PrintStream>> experiments;
+	private final Map<Integer, ExperimentJob> jobs;
+	private final AtomicInteger nextId;
+	private final Path resultDirectory;
+	private final ExecutorService cpuPool;
+
+	private ExperimentServer(Path resultDirectory, int cpuThreads) throws IOException {
+		experiments = new LinkedHashMap<String, Consumer<PrintStream>>();
+		experiments.put("anneal", AnnealingScheduleExperiment::run);
+		experiments.put("onemax", OneMaxExperiment::run);
+		experiments.put("boundmax", BoundMaxExperiment::run);
+		experiments.put("haystack", HaystackExperiment::run);
+		experiments.put("roots", RootFindingExperiment::run);
+		jobs = new ConcurrentSkipListMap<Integer, ExperimentJob>();
+		this.resultDirectory = resultDirectory.toAbsolutePath().normalize();
+		Files.createDirectories(this.resultDirectory);
+		nextId = new AtomicInteger(firstUnusedId(this.resultDirectory));
+		cpuPool = Executors.newFixedThreadPool(cpuThreads);
+	}
+
+	/**
+	 * Runs the server until the JVM is terminated.
+	 * @param args The port, optionally followed by the result directory and number of cpu threads.
+	 * @throws IOException if the server cannot be started.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length > 3) {
+			System.err.println("Usage: ExperimentServer [port [resultDirectory [cpuThreads]]]");
+			System.exit(2);
+		}
+		final int PORT = args.length > 0 ? Integer.parseInt(args[0]) : 8642;
+		final Path RESULTS = Paths.get(args.length > 1 ? args[1] : "results");
+		final int CPU_THREADS = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+		ExperimentServer service = new ExperimentServer(RESULTS, CPU_THREADS);
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), PORT), 0);
+		server.createContext("/experiments", service::listExperiments);
+		server.createContext("/jobs", service::handleJobs);
+		server.createContext("/results", service::serveResult);
+		// Connections, and clients streaming results, mostly wait on I/O or on
+		// the jobs, so they get their own unbounded pool, separate from the cpu pool.
+		ExecutorService ioPool = Executors.newCachedThreadPool();
+		server.setExecutor(ioPool);
+
+		TrialRecording recording = TrialRecording.start("ExperimentServer");
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.stop(0);
+			service.cpuPool.shutdownNow();
+			ioPool.shutdownNow();
+			recording.stop();
+		}));
+		server.start();
+		System.out.println("Experiment server listening on http://localhost:" + server.getAddress().getPort());
+	}
+
+	private void listExperiments(HttpExchange exchange) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals("GET")) {
+				respond(exchange, 405, "Method not allowed.\n");
+				return;
+			}
+			StringBuilder s = new StringBuilder();
+			for (String name : experiments.keySet()) {
+				s.append(name).append('\n');
+			}
+			respond(exchange, 200, s.toString());
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void handleJobs(HttpExchange exchange) throws IOException {
+		try {
+			String name = childOf("/jobs", exchange);
+			String method = exchange.getRequestMethod();
+			if (method.equals("POST") && name != null) {
+				submit(exchange, name);
+			} else if (method.equals("GET") && name == null) {
+				listJobs(exchange);
+			} else if (method.equals("GET")) {
+				stream(exchange, name);
+			} else {
+				respond(exchange, 405, "Method not allowed.\n");
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void submit(HttpExchange exchange, String name) throws IOException {
+		Consumer<PrintStream> sweep = experiments.get(name);
+		if (sweep == null) {
+			respond(exchange, 404, "No such experiment: " + name + "\n");
+			return;
+		}
+		int id = nextId.getAndIncrement();
+		ExperimentJob job = new ExperimentJob(id, name, sweep, resultDirectory.resolve(id + "-" + name + ".txt"));
+		jobs.put(id, job);
+		cpuPool.execute(job);
+		respond(exchange, 202, id + "\n");
+	}
+
+	private void listJobs(HttpExchange exchange) throws IOException {
+		StringBuilder s = new StringBuilder();
+		s.append(String.format("%5s\t%-8s\t%-7s\t%s\n", "id", "name", "state", "file"));
+		for (ExperimentJob job : jobs.values()) {
+			s.append(String.format("%5d\t%-8s\t%-7s\t%s\n",
+				job.id(),
+				job.experiment(),
+				job.state(),
+				job.resultFile().getFileName()
+			));
+		}
+		respond(exchange, 200, s.toString());
+	}
+
+	private void stream(HttpExchange exchange, String idString) throws IOException {
+		ExperimentJob job = null;
+		try {
+			job = jobs.get(Integer.parseInt(idString));
+		} catch (NumberFormatException e) {
+			// handled as a missing job below
+		}
+		if (job == null) {
+			respond(exchange, 404, "No such job: " + idString + "\n");
+			return;
+		}
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		// A response length of 0 means chunked, since the length is not known in advance.
+		exchange.sendResponseHeaders(200, 0);
+		OutputStream out = exchange.getResponseBody();
+		int position = 0;
+		try {
+			byte[] chunk;
+			while ((chunk = job.awaitOutput(position)).length > 0) {
+				out.write(chunk);
+				out.flush();
+				position += chunk.length;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void serveResult(HttpExchange exchange) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals("GET")) {
+				respond(exchange, 405, "Method not allowed.\n");
+				return;
+			}
+			String name = childOf("/results", exchange);
+			if (name == null) {
+				StringBuilder s = new StringBuilder();
+				try (DirectoryStream<Path> files = Files.newDirectoryStream(resultDirectory, "*.txt")) {
+					for (Path f : files) s.append(f.getFileName()).append('\n');
+				}
+				respond(exchange, 200, s.toString());
+				return;
+			}
+			Path file = resultDirectory.resolve(name).normalize();
+			if (!file.startsWith(resultDirectory) || file.equals(resultDirectory)
+					|| file.getFileName().toString().endsWith(".partial") || !Files.isRegularFile(file)) {
+				respond(exchange, 404, "No such result file: " + name + "\n");
+				return;
+			}
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+			exchange.sendResponseHeaders(200, Files.size(file));
+			try (OutputStream out = exchange.getResponseBody()) {
+				Files.copy(file, out);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/*
+	 * The path component after the context, or null if there is none.
+	 */
+	private static String childOf(String context, HttpExchange exchange) {
+		String path = exchange.getRequestURI().getPath();
+		String rest = path.length() > context.length() ? path.substring(context.length() + 1) : "";
+		return rest.length() > 0 && rest.indexOf('/') < 0 ? rest : null;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/*
+	 * Job ids continue from those of the result files, including the .partial
+	 * and .failed files of unfinished and failed jobs, left by earlier runs of
+	 * the server, so that those files are not overwritten.
+	 */
+	private static int firstUnusedId(Path resultDirectory) throws IOException {
+		int max = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(resultDirectory, "*-*.txt*")) {
+			for (Path f : files) {
+				String name = f.getFileName().toString();
+				try {
+					max = Math.max(max, Integer.parseInt(name.substring(0, name.indexOf('-'))));
+				} catch (NumberFormatException e) {
+					// not a result file of this server
+				}
+			}
+		}
+		return max + 1;
+	}
+}
@@ -0,0 +1,269 @@
+/*
+ * Experiments with the original version, and optimized version,
+ * of the Modified Lam annealing schedule.
+ * Copyright (C) 2020  Vincent A. Cicirello
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.cicirello.experiments.modifiedlam;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>Performance regression gate, which compares a candidate result file
+ * against a baseline result file from the same experiment, such as one of
+ * the result files in the data directory, and flags each cell in which the
+ * cpu time or the cost of the optimized Modified Lam got statistically
+ * worse.  The exit status is 0 if there are no regressions, 1 if there is at
+ * least one regression, and 2 if the inputs are invalid, which includes a candidate
+ * that is missing any of the cells of the baseline, such as from a truncated sweep.
+ * Cells that are only in the candidate are reported, but not compared.</p>
+ *
+ * <p>Usage:<br>
+ * RegressionGate [options] baseline candidate<br>
+ * with the following options:</p>
+ * <ul>
+ * <li>-b file: The {@link Calibration} value of the machine that produced the baseline.</li>
+ * <li>-c file: The {@link Calibration} value of the machine that produced the candidate.
+ *     If -b is given without -c, the calibration microbenchmark is run on this machine.
+ *     If -b is not given, no normalization for machine speed is done.</li>
+ * <li>-alpha a: The significance level of the one-sided Mann-Whitney U tests (default 0.01).</li>
+ * <li>-tolerance t: The relative slowdown in mean cpu time, after normalizing for machine
+ *     speed, below which a statistically significant slowdown is not flagged (default 0.05).</li>
+ * </ul>
+ *
+ * <p>The candidate cpu times are normalized by dividing by the ratio of the candidate
+ * calibration value to the baseline calibration value.  A cell's cpu time is flagged if
+ * the normalized candidate cpu times are significantly greater than the baseline's, and
+ * the ratio of their means exceeds 1 + tolerance. A cell's cost is flagged if the candidate
+ * costs are significantly greater than the baseline's (all of the experiments minimize).
+ * Since the experiments are not seeded, the costs of the baseline and candidate are
+ * independent random samples even if nothing changed, so the cost tests of all of the
+ * compared cells are corrected for multiple comparisons with Holm's step-down method,
+ * which keeps the probability of flagging any cost, when no cost changed, at most alpha.
+ * The cpu time tests are not corrected, since the tolerance guards them instead.</p>
+ *
+ * <p>The report is formatted in columns as follows:<br>
+ * L  R  N  muT2b  muT2c  ratio  lo95  hi95  P-cpu  P-cost  status<br>
+ * where L is the run length, R is the number of restarts, N is the number of
+ * candidate samples, muT2b and muT2c are the mean cpu times in seconds of the baseline,
+ * and normalized candidate, ratio is muT2c/muT2b, lo95 and hi95 are the bounds of
+ * a 95% bootstrap confidence interval for that ratio, P-cpu and P-cost are the p-values
+ * of the one-sided tests (P-cost before the correction), and status lists what regressed,
+ * if anything.</p>
+ *
+ * @author <a href=https://www.cicirello.org/ target=_top>Vincent A. Cicirello</a>,
+ * <a href=https://www.cicirello.org/ target=_top>https://www.cicirello.org/</a>
+ */
+public class RegressionGate {
+
+	/**
+	 * Runs the regression gate.
+	 * @param args The command line arguments, as described in the class documentation.
+	 */
+	public static void main(String[] args) {
+		final int NUM_RESAMPLES = 100000;
+		final long SEED = 42L;
+		final double CONFIDENCE = 0.95;
+
+		String baselineCalibrationFile = null;
+		String candidateCalibrationFile = null;
+		double alpha = 0.01;
+		double tolerance = 0.05;
+		String baselineFile = null;
+		String candidateFile = null;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "-b": baselineCalibrationFile = args[++i]; break;
+					case "-c": candidateCalibrationFile = args[++i]; break;
+					case "-alpha": alpha = Double.parseDouble(args[++i]); break;
+					case "-tolerance": tolerance = Double.parseDouble(args[++i]); break;
+					default:
+						if (baselineFile == null) baselineFile = args[i];
+						else if (candidateFile == null) candidateFile = args[i];
+						else throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+			usage("Invalid option value.");
+		} catch (IllegalArgumentException e) {
+			usage(e.getMessage());
+		}
+		if (candidateFile == null) {
+			usage("Both a baseline and a candidate result file are required.");
+		}
+		if (candidateCalibrationFile != null && baselineCalibrationFile == null) {
+			usage("-c requires -b.");
+		}
+
+		ExperimentResults baseline;
+		ExperimentResults candidate;
+		double speed = 1.0;
+		try {
+			baseline = ExperimentResults.load(Paths.get(baselineFile));
+			candidate = ExperimentResults.load(Paths.get(candidateFile));
+			if (baselineCalibrationFile != null) {
+				double b = Calibration.read(Paths.get(baselineCalibrationFile));
+				double c = candidateCalibrationFile != null
+					? Calibration.read(Paths.get(candidateCalibrationFile))
+					: Calibration.measure();
+				speed = c / b;
+			}
+		} catch (IOException e) {
+			usage("Cannot read " + e.getMessage());
+			return;
+		} catch (IllegalArgumentException e) {
+			usage(e.getMessage());
+			return;
+		}
+		if (baseline.isAnnealOnly() != candidate.isAnnealOnly()) {
+			usage("The baseline and candidate are from different experiments.");
+		}
+
+		System.out.println("Regression Check: " + candidateFile + " against " + baselineFile);
+		System.out.printf("Machine speed factor (candidate/baseline calibration): %.4f\n", speed);
+		System.out.printf("%9s\t%4s\t%3s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\n",
+			"L",
+			"R",
+			"N",
+			"muT2b",
+			"muT2c",
+			"ratio",
+			"lo95",
+			"hi95",
+			"P-cpu",
+			"P-cost",
+			"status"
+		);
+
+		// The costs are random samples, even when nothing changed, so the cost tests
+		// of all compared cells are corrected together with Holm's method.
+		double costCutoff = -1;
+		if (!baseline.isAnnealOnly()) {
+			ArrayList<Double> pCosts = new ArrayList<Double>();
+			for (ExperimentResults.Cell base : baseline.cells()) {
+				ExperimentResults.Cell cand = candidate.get(base.key());
+				if (cand != null) {
+					pCosts.add(ResamplingStatistics.mannWhitney(cand.cost2(), base.cost2()).pGreater());
+				}
+			}
+			costCutoff = holmCutoff(pCosts, alpha);
+		}
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		int regressions = 0;
+		int compared = 0;
+		int missing = 0;
+		for (ExperimentResults.Cell base : baseline.cells()) {
+			ExperimentResults.Cell cand = candidate.get(base.key());
+			if (cand == null) {
+				System.out.printf("%9d\t%4d\t%3d\t%s\n",
+					base.key().runLength(),
+					base.key().restarts(),
+					0,
+					"MISSING from candidate"
+				);
+				missing++;
+				continue;
+			}
+			compared++;
+			double[] cpuBase = base.cpu2();
+			double[] cpuCand = new double[cand.size()];
+			for (int i = 0; i < cpuCand.length; i++) {
+				cpuCand[i] = cand.cpu2()[i] / speed;
+			}
+			double ratio = ResamplingStatistics.ratioOfMeans(cpuCand, cpuBase);
+			double[] interval = ResamplingStatistics.bootstrapRatioOfMeans(
+				cpuCand,
+				cpuBase,
+				NUM_RESAMPLES,
+				CONFIDENCE,
+				SEED,
+				pool
+			);
+			double pCpu = ResamplingStatistics.mannWhitney(cpuCand, cpuBase).pGreater();
+			boolean cpuWorse = pCpu < alpha && ratio > 1 + tolerance;
+			double pCost = Double.NaN;
+			boolean costWorse = false;
+			if (!baseline.isAnnealOnly()) {
+				pCost = ResamplingStatistics.mannWhitney(cand.cost2(), base.cost2()).pGreater();
+				costWorse = pCost <= costCutoff;
+			}
+			String status = cpuWorse && costWorse ? "REGRESSION cpu+cost"
+				: cpuWorse ? "REGRESSION cpu"
+				: costWorse ? "REGRESSION cost"
+				: "ok";
+			if (cpuWorse || costWorse) regressions++;
+			System.out.printf("%9d\t%4d\t%3d\t%.5f\t%.5f\t%.3f\t%.3f\t%.3f\t%.2g\t%.2g\t%s\n",
+				base.key().runLength(),
+				base.key().restarts(),
+				cand.size(),
+				ResamplingStatistics.mean(cpuBase) / 1e9,
+				ResamplingStatistics.mean(cpuCand) / 1e9,
+				ratio,
+				interval[0],
+				interval[1],
+				pCpu,
+				pCost,
+				status
+			);
+		}
+		for (ExperimentResults.Cell cand : candidate.cells()) {
+			if (baseline.get(cand.key()) == null) {
+				System.out.printf("%9d\t%4d\t%3d\t%s\n",
+					cand.key().runLength(),
+					cand.key().restarts(),
+					cand.size(),
+					"not in baseline"
+				);
+			}
+		}
+		System.out.printf("%d of %d compared cells regressed.\n", regressions, compared);
+		if (missing > 0) {
+			System.err.println(missing + " cells of the baseline are missing from the candidate.");
+			System.exit(2);
+		}
+		if (compared == 0) {
+			System.err.println("No cells in common between the baseline and candidate.");
+			System.exit(2);
+		}
+		System.exit(regressions > 0 ? 1 : 0);
+	}
+
+	/*
+	 * Holm's step-down method: the largest of the p-values that are rejected,
+	 * or -1 if none are, so that a test is rejected if its p-value is at most
+	 * the cutoff. Controls the probability of any false rejection at alpha.
+	 */
+	private static double holmCutoff(ArrayList<Double> p, double alpha) {
+		Collections.sort(p);
+		double cutoff = -1;
+		for (int i = 0; i < p.size() && p.get(i) < alpha / (p.size() - i); i++) {
+			cutoff = p.get(i);
+		}
+		return cutoff;
+	}
+
+	private static void usage(String message) {
+		System.err.println(message);
+		System.err.println("Usage: RegressionGate [-b baselineCalibration [-c candidateCalibration]] [-alpha a] [-tolerance t] baseline candidate");
+		System.exit(2);
+	}
+}
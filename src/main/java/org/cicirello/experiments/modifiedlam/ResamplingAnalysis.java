@@ -0,0 +1,149 @@
+/*
+ * Experiments with the original version, and optimized version,
+ * of the Modified Lam annealing schedule.
+ * Copyright (C) 2020  Vincent A. Cicirello
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.cicirello.experiments.modifiedlam;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>Analysis program that complements the t-tests of experimentstats.py
+ * with statistics that do not assume normality.  The cpu times in the
+ * result files are heavily quantized by the resolution of the cpu timer,
+ * and skewed, so for each cell of an experiment, this program computes a
+ * bootstrap confidence interval for the ratio cpu1/cpu2 of the mean cpu times
+ * of the original and optimized Modified Lam, along with Mann-Whitney U tests
+ * comparing the cpu times, and the costs (for all but the annealing schedule
+ * experiment).</p>
+ *
+ * <p>Usage:<br>
+ * ResamplingAnalysis datafile [numResamples [seed]]<br>
+ * where datafile is one of the 5 result files produced by the experiments,
+ * numResamples is the number of bootstrap replicates (default 100000),
+ * and seed is the seed for the random number generator (default 42).</p>
+ *
+ * <p>The output is formatted in columns as follows:<br>
+ * L  [R]  N  muT1  muT2  ratio  lo95  hi95  A-cpu  P-cpu  [A-cost  P-cost]<br>
+ * where L is the run length, R is the number of restarts (only for the annealing
+ * schedule experiment), N is the number of samples, muT1 and muT2 are the mean cpu
+ * times in seconds, ratio is muT1/muT2, lo95 and hi95 are the bounds of the 95%
+ * bootstrap confidence interval for that ratio, A-cpu is the probability that a
+ * cpu time of the original is greater than one of the optimized version (ties count
+ * one half), P-cpu is the two-sided p-value of the Mann-Whitney U test on the cpu
+ * times, and A-cost and P-cost are the same for the costs.</p>
+ *
+ * @author <a href=https://www.cicirello.org/ target=_top>Vincent A. Cicirello</a>,
+ * <a href=https://www.cicirello.org/ target=_top>https://www.cicirello.org/</a>
+ */
+public class ResamplingAnalysis {
+
+	/**
+	 * Runs the analysis.
+	 * @param args The path to a result file, optionally followed by the number
+	 * of bootstrap replicates, and the seed for the random number generator.
+	 * @throws IOException if the result file cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 3) {
+			System.err.println("Usage: ResamplingAnalysis datafile [numResamples [seed]]");
+			System.exit(2);
+		}
+		final int NUM_RESAMPLES = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		final long SEED = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+		final double CONFIDENCE = 0.95;
+
+		ExperimentResults results = ExperimentResults.load(Paths.get(args[0]));
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+
+		System.out.println("Resampling Analysis: " + args[0]);
+		if (results.isAnnealOnly()) {
+			System.out.printf("%7s\t%4s\t%3s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\n",
+				"L",
+				"R",
+				"N",
+				"muT1",
+				"muT2",
+				"ratio",
+				"lo95",
+				"hi95",
+				"A-cpu",
+				"P-cpu"
+			);
+		} else {
+			System.out.printf("%9s\t%3s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\n",
+				"L",
+				"N",
+				"muT1",
+				"muT2",
+				"ratio",
+				"lo95",
+				"hi95",
+				"A-cpu",
+				"P-cpu",
+				"A-cost",
+				"P-cost"
+			);
+		}
+
+		for (ExperimentResults.Cell cell : results.cells()) {
+			double[] cpu1 = cell.cpu1();
+			double[] cpu2 = cell.cpu2();
+			double[] interval = ResamplingStatistics.bootstrapRatioOfMeans(
+				cpu1,
+				cpu2,
+				NUM_RESAMPLES,
+				CONFIDENCE,
+				SEED,
+				pool
+			);
+			ResamplingStatistics.MannWhitney cpuTest = ResamplingStatistics.mannWhitney(cpu1, cpu2);
+			if (results.isAnnealOnly()) {
+				System.out.printf("%7d\t%4d\t%3d\t%.5f\t%.5f\t%.3f\t%.3f\t%.3f\t%.3f\t%.2g\n",
+					cell.key().runLength(),
+					cell.key().restarts(),
+					cell.size(),
+					ResamplingStatistics.mean(cpu1) / 1e9,
+					ResamplingStatistics.mean(cpu2) / 1e9,
+					ResamplingStatistics.ratioOfMeans(cpu1, cpu2),
+					interval[0],
+					interval[1],
+					cpuTest.effectSize(),
+					cpuTest.pTwoSided()
+				);
+			} else {
+				ResamplingStatistics.MannWhitney costTest = ResamplingStatistics.mannWhitney(cell.cost1(), cell.cost2());
+				System.out.printf("%9d\t%3d\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f\t%.2g\t%.3f\t%.2g\n",
+					cell.key().runLength(),
+					cell.size(),
+					ResamplingStatistics.mean(cpu1) / 1e9,
+					ResamplingStatistics.mean(cpu2) / 1e9,
+					ResamplingStatistics.ratioOfMeans(cpu1, cpu2),
+					interval[0],
+					interval[1],
+					cpuTest.effectSize(),
+					cpuTest.pTwoSided(),
+					costTest.effectSize(),
+					costTest.pTwoSided()
+				);
+			}
+		}
+		System.out.println();
+	}
+}
@@ -0,0 +1,321 @@
+/*
+ * Experiments with the original version, and optimized version,
+ * of the Modified Lam annealing schedule.
+ * Copyright (C) 2020  Vincent A. Cicirello
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.cicirello.experiments.modifiedlam;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>Statistics that make no assumption of normality, for comparing
+ * samples such as the cpu times recorded by the experiments, which are
+ * heavily quantized by the resolution of the cpu timer, and skewed.</p>
+ *
+ * <p>The bootstrap resamples in parallel on a {@link ForkJoinPool}. Each
+ * subtask has its own random number generator, split from its parent's
+ * {@link SplittableRandom}, so the result depends only on the seed and not
+ * on how the subtasks happen to be scheduled across threads.</p>
+ *
+ * @author <a href=https://www.cicirello.org/ target=_top>Vincent A. Cicirello</a>,
+ * <a href=https://www.cicirello.org/ target=_top>https://www.cicirello.org/</a>
+ */
+public final class ResamplingStatistics {
+
+	/*
+	 * Number of resamples computed sequentially by one subtask.
+	 */
+	private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+	private ResamplingStatistics() {}
+
+	/**
+	 * Computes the mean of a sample.
+	 *
+	 * @param x The sample.
+	 *
+	 * @return The mean of x.
+	 */
+	public static double mean(double[] x) {
+		return sum(x) / x.length;
+	}
+
+	/**
+	 * Computes the ratio of the means of two samples, mean(x) / mean(y).
+	 * If both means are 0, the ratio is defined as 1, since the samples are
+	 * indistinguishable; and if only mean(y) is 0, the ratio is infinite.
+	 *
+	 * @param x The first sample.
+	 * @param y The second sample.
+	 *
+	 * @return mean(x) / mean(y)
+	 */
+	public static double ratioOfMeans(double[] x, double[] y) {
+		return ratio(mean(x), mean(y));
+	}
+
+	/**
+	 * Computes a percentile bootstrap confidence interval for the ratio
+	 * of the means of two independent samples, mean(x) / mean(y).  Each
+	 * bootstrap replicate resamples x and y independently, with replacement.
+	 *
+	 * @param x The first sample.
+	 * @param y The second sample.
+	 * @param numResamples The number of bootstrap replicates.
+	 * @param confidence The confidence level, such as 0.95.
+	 * @param seed The seed for the random number generator.
+	 * @param pool The pool on which to compute the replicates.
+	 *
+	 * @return An array of length 2 with the lower and upper bounds of the interval.
+	 *
+	 * @throws IllegalArgumentException if either sample is empty, if numResamples is
+	 * less than 1, or if confidence is not strictly between 0 and 1.
+	 */
+	public static double[] bootstrapRatioOfMeans(double[] x, double[] y, int numResamples, double confidence, long seed, ForkJoinPool pool) {
+		if (x.length == 0 || y.length == 0) {
+			throw new IllegalArgumentException("Samples must be nonempty.");
+		}
+		if (numResamples < 1) {
+			throw new IllegalArgumentException("numResamples must be positive.");
+		}
+		if (!(confidence > 0 && confidence < 1)) {
+			throw new IllegalArgumentException("confidence must be in the interval (0, 1).");
+		}
+		double[] replicates = new double[numResamples];
+		pool.invoke(new RatioTask(x, y, replicates, 0, numResamples, new SplittableRandom(seed)));
+		Arrays.sort(replicates);
+		double alpha = (1 - confidence) / 2;
+		return new double[] {
+			percentile(replicates, alpha),
+			percentile(replicates, 1 - alpha)
+		};
+	}
+
+	/**
+	 * Computes the Mann-Whitney U test for two independent samples.
+	 *
+	 * @param x The first sample.
+	 * @param y The second sample.
+	 *
+	 * @return The result of the test.
+	 *
+	 * @throws IllegalArgumentException if either sample is empty.
+	 */
+	public static MannWhitney mannWhitney(double[] x, double[] y) {
+		if (x.length == 0 || y.length == 0) {
+			throw new IllegalArgumentException("Samples must be nonempty.");
+		}
+		return new MannWhitney(x, y);
+	}
+
+	/**
+	 * <p>The result of a Mann-Whitney U test.  The p-values use the normal
+	 * approximation, with a correction for ties, and a continuity correction,
+	 * which is equivalent to the default behavior of scipy.stats.mannwhitneyu.
+	 * Ties are the common case for the cpu times in the result files, since
+	 * the timer resolution is coarse relative to the shorter runs.</p>
+	 */
+	public static final class MannWhitney {
+
+		private final double u;
+		private final double mu;
+		private final double sigma;
+		private final int n1;
+		private final int n2;
+
+		private MannWhitney(double[] x, double[] y) {
+			n1 = x.length;
+			n2 = y.length;
+			int n = n1 + n2;
+			double[] combined = new double[n];
+			int[] group = new int[n];
+			Integer[] order = new Integer[n];
+			for (int i = 0; i < n1; i++) combined[i] = x[i];
+			for (int i = 0; i < n2; i++) {
+				combined[n1 + i] = y[i];
+				group[n1 + i] = 1;
+			}
+			for (int i = 0; i < n; i++) order[i] = i;
+			Arrays.sort(order, (a, b) -> Double.compare(combined[a], combined[b]));
+			double rankSumX = 0;
+			double tieTerm = 0;
+			for (int i = 0; i < n; ) {
+				int j = i + 1;
+				while (j < n && combined[order[j]] == combined[order[i]]) j++;
+				// positions i through j-1 are tied, and share the average rank
+				double rank = (i + 1 + j) / 2.0;
+				for (int k = i; k < j; k++) {
+					if (group[order[k]] == 0) rankSumX += rank;
+				}
+				double t = j - i;
+				tieTerm += t * t * t - t;
+				i = j;
+			}
+			u = rankSumX - n1 * (n1 + 1.0) / 2;
+			mu = n1 * (double)n2 / 2;
+			double variance = n1 * (double)n2 / 12 * ((n + 1) - tieTerm / (n * (n - 1.0)));
+			sigma = variance > 0 ? Math.sqrt(variance) : 0;
+		}
+
+		/**
+		 * Gets the U statistic of the first sample.
+		 * @return The U statistic of the first sample.
+		 */
+		public double u() {
+			return u;
+		}
+
+		/**
+		 * Gets the common language effect size, the probability that a
+		 * value drawn from the first sample is greater than one drawn from
+		 * the second, counting ties as one half.
+		 * @return U / (n1 * n2)
+		 */
+		public double effectSize() {
+			return u / (n1 * (double)n2);
+		}
+
+		/**
+		 * Gets the p-value of the two-sided test.
+		 * @return The two-sided p-value.
+		 */
+		public double pTwoSided() {
+			if (sigma == 0) return 1.0;
+			double z = Math.max(0, Math.abs(u - mu) - 0.5) / sigma;
+			return Math.min(1.0, 2 * upperTail(z));
+		}
+
+		/**
+		 * Gets the p-value of the one-sided test whose alternative hypothesis
+		 * is that the first sample is stochastically greater than the second.
+		 * @return The one-sided p-value.
+		 */
+		public double pGreater() {
+			if (sigma == 0) return 1.0;
+			return upperTail((u - mu - 0.5) / sigma);
+		}
+
+		/**
+		 * Gets the p-value of the one-sided test whose alternative hypothesis
+		 * is that the first sample is stochastically less than the second.
+		 * @return The one-sided p-value.
+		 */
+		public double pLess() {
+			if (sigma == 0) return 1.0;
+			return upperTail((mu - u - 0.5) / sigma);
+		}
+	}
+
+	/*
+	 * Computes bootstrap replicates of the ratio of means for the indexes
+	 * [from, to) of the replicates array, splitting in half until the
+	 * range is small enough to compute sequentially.
+	 */
+	private static final class RatioTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final double[] x;
+		private final double[] y;
+		private final double[] replicates;
+		private final int from;
+		private final int to;
+		private final SplittableRandom rng;
+
+		private RatioTask(double[] x, double[] y, double[] replicates, int from, int to, SplittableRandom rng) {
+			this.x = x;
+			this.y = y;
+			this.replicates = replicates;
+			this.from = from;
+			this.to = to;
+			this.rng = rng;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= SEQUENTIAL_THRESHOLD) {
+				for (int i = from; i < to; i++) {
+					replicates[i] = ratio(resampledMean(x, rng), resampledMean(y, rng));
+				}
+			} else {
+				int mid = (from + to) >>> 1;
+				RatioTask left = new RatioTask(x, y, replicates, from, mid, rng.split());
+				RatioTask right = new RatioTask(x, y, replicates, mid, to, rng);
+				invokeAll(left, right);
+			}
+		}
+	}
+
+	private static double resampledMean(double[] x, SplittableRandom rng) {
+		double total = 0;
+		for (int i = 0; i < x.length; i++) {
+			total += x[rng.nextInt(x.length)];
+		}
+		return total / x.length;
+	}
+
+	private static double ratio(double numerator, double denominator) {
+		if (denominator == 0) {
+			return numerator == 0 ? 1.0 : Double.POSITIVE_INFINITY;
+		}
+		return numerator / denominator;
+	}
+
+	private static double sum(double[] x) {
+		double total = 0;
+		for (double v : x) total += v;
+		return total;
+	}
+
+	/*
+	 * Percentile of sorted data, with linear interpolation between
+	 * the closest ranks.
+	 */
+	private static double percentile(double[] sorted, double p) {
+		double pos = p * (sorted.length - 1);
+		int lo = (int)Math.floor(pos);
+		int hi = (int)Math.ceil(pos);
+		if (lo == hi || sorted[lo] == sorted[hi]) return sorted[lo];
+		return sorted[lo] + (pos - lo) * (sorted[hi] - sorted[lo]);
+	}
+
+	/*
+	 * Upper tail probability of the standard normal distribution, P(Z > z),
+	 * computed from the complementary error function.
+	 */
+	private static double upperTail(double z) {
+		return 0.5 * erfc(z / Math.sqrt(2));
+	}
+
+	/*
+	 * Complementary error function, via the Chebyshev approximation from
+	 * Numerical Recipes, which has fractional error less than 1.2E-7 everywhere,
+	 * including far into the tails where the p-values of the longer runs lie.
+	 */
+	private static double erfc(double x) {
+		double z = Math.abs(x);
+		double t = 1.0 / (1.0 + 0.5 * z);
+		double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 +
+			t * (0.37409196 + t * (0.09678418 + t * (-0.18628806 +
+			t * (0.27886807 + t * (-1.13520398 + t * (1.48851587 +
+			t * (-0.82215223 + t * 0.17087277)))))))));
+		return x >= 0 ? r : 2.0 - r;
+	}
+}
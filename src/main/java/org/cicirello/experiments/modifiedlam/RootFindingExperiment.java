@@ -19,6 +19,7 @@
 
 package org.cicirello.experiments.modifiedlam;
 
+import java.io.PrintStream;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 
@@ -62,6 +63,16 @@ public class RootFindingExperiment {
 	 * @param args There are no command line arguments.
 	 */
     public static void main(String[] args) {
+		TrialRecording recording = TrialRecording.start("RootFinding");
+		run(System.out);
+		recording.stop();
+	}
+	
+	/**
+	 * Runs the experiment, writing the results to a stream.
+	 * @param out The stream to which the results are written.
+	 */
+	public static void run(PrintStream out) {
 		final int WARMUP_NUM_SAMPLES = 10;
 		final int NUM_SAMPLES = 100;
 		final int MIN_RUN_LENGTH = 100000;
@@ -100,7 +111,7 @@ public class RootFindingExperiment {
 		
 		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
 		
-		System.out.printf("%9s\t%10s\t%10s\t%12s\t%12s\n",
+		out.printf("%9s\t%10s\t%10s\t%12s\t%12s\n",
 			"length",
 			"cost1",
 			"cost2",
@@ -125,18 +136,27 @@ public class RootFindingExperiment {
 					new ModifiedLam()
 				);
 
+				TrialEvent trial1 = new TrialEvent();
+				TrialEvent trial2 = new TrialEvent();
+				trial1.begin();
 				long start = bean.getCurrentThreadCpuTime();
 				sa1.optimize(runLength);
 				long mid = bean.getCurrentThreadCpuTime();
+				trial1.end();
+				trial2.begin();
+				long start2 = bean.getCurrentThreadCpuTime();
 				sa2.optimize(runLength);
 				long end = bean.getCurrentThreadCpuTime();
+				trial2.end();
+				trial1.record("RootFinding", runLength, 1, i, "ModifiedLamOriginal", mid-start, sa1.getProgressTracker().getCostDouble());
+				trial2.record("RootFinding", runLength, 1, i, "ModifiedLam", end-start2, sa2.getProgressTracker().getCostDouble());
 				
-				System.out.printf("%9d\t%10.8f\t%10.8f\t%12d\t%12d\n",
+				out.printf("%9d\t%10.8f\t%10.8f\t%12d\t%12d\n",
 					runLength,
 					sa1.getProgressTracker().getCostDouble(), 
 					sa2.getProgressTracker().getCostDouble(),
 					mid-start,
-					end-mid
+					end-start2
 				);
 			}
 		}
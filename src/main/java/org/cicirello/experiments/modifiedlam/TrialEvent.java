@@ -0,0 +1,104 @@
+/*
+ * Experiments with the original version, and optimized version,
+ * of the Modified Lam annealing schedule.
+ * Copyright (C) 2020  Vincent A. Cicirello
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.cicirello.experiments.modifiedlam;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * <p>Java Flight Recorder event for one timed trial of one annealing schedule
+ * within an experiment.  The event begins immediately before the cpu time
+ * of the trial starts being measured, and ends immediately after, so the other
+ * events of a recording (e.g., execution samples, garbage collections,
+ * deoptimizations) can be attributed to the trial that was running at
+ * the time.  See {@link TrialProfile}.</p>
+ *
+ * <p>When no recording is running, the JVM eliminates the overhead of the
+ * event, so the experiments record these events unconditionally.</p>
+ *
+ * @author <a href=https://www.cicirello.org/ target=_top>Vincent A. Cicirello</a>,
+ * <a href=https://www.cicirello.org/ target=_top>https://www.cicirello.org/</a>
+ */
+@Name(TrialEvent.NAME)
+@Label("Modified Lam Trial")
+@Category("Modified Lam Experiments")
+@Description("One timed trial of an annealing schedule within an experiment")
+@StackTrace(false)
+final class TrialEvent extends Event {
+
+	/**
+	 * The name of the event type.
+	 */
+	static final String NAME = "org.cicirello.experiments.modifiedlam.Trial";
+
+	@Label("Experiment")
+	String experiment;
+
+	@Label("Run Length")
+	long runLength;
+
+	@Label("Restarts")
+	int restarts;
+
+	@Label("Sample")
+	int sample;
+
+	@Label("Schedule")
+	String schedule;
+
+	@Label("CPU Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long cpuTime;
+
+	@Label("Cost")
+	@Description("Best of run cost, or NaN if the experiment has no cost function")
+	double cost;
+
+	/**
+	 * Sets the fields of the event, and commits it.  Call this after
+	 * {@link #end}, and outside of the code that is being timed.
+	 *
+	 * @param experiment The name of the experiment.
+	 * @param runLength The run length.
+	 * @param restarts The number of restarts, which is 1 for all experiments other
+	 * than the annealing schedule experiment.
+	 * @param sample The index of the sample within the run length.
+	 * @param schedule The name of the annealing schedule class.
+	 * @param cpuTime The cpu time of the trial, in nanoseconds.
+	 * @param cost The best of run cost, or NaN if the experiment has no cost function.
+	 */
+	void record(String experiment, long runLength, int restarts, int sample, String schedule, long cpuTime, double cost) {
+		if (shouldCommit()) {
+			this.experiment = experiment;
+			this.runLength = runLength;
+			this.restarts = restarts;
+			this.sample = sample;
+			this.schedule = schedule;
+			this.cpuTime = cpuTime;
+			this.cost = cost;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,250 @@
+/*
+ * Experiments with the original version, and optimized version,
+ * of the Modified Lam annealing schedule.
+ * Copyright (C) 2020  Vincent A. Cicirello
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.cicirello.experiments.modifiedlam;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * <p>Extracts per-trial profiles from a Java Flight Recorder recording of
+ * one of the experiments, such as one produced with the modifiedlam.jfr
+ * system property (see {@link TrialRecording}).  Each {@link TrialEvent} in
+ * the recording is matched with the events that occurred on the same thread
+ * (or, for garbage collections and safepoints, on any thread) while the trial
+ * was running, so that a trial with an unexpected cpu time can be tied to its
+ * hot methods, garbage collection pauses, safepoints, or deoptimizations.</p>
+ *
+ * <p>Usage:<br>
+ * TrialProfile recording.jfr [topMethods [minCpuMillis]]<br>
+ * where topMethods is the number of hot methods listed per trial (default 5),
+ * and minCpuMillis limits the output to trials whose cpu time is at least that
+ * many milliseconds (default 0).</p>
+ *
+ * <p>For each trial, the output has a line with the columns:<br>
+ * experiment  L  R  sample  schedule  cpu  cost  samples  gc  safepoints  deopts<br>
+ * where cpu is the cpu time in seconds, samples is the number of execution samples
+ * taken during the trial, gc is the total garbage collection pause time, in seconds,
+ * of collections that started during the trial, and safepoints and deopts are counts.
+ * Deoptimizations are only recorded by JDK 14 or later, so deopts is - for recordings
+ * made by earlier JDKs, such as JDK 11, the minimum for the experiments. It is followed by the hot methods of the trial, by the percent of execution samples
+ * in which they were the top frame.</p>
+ *
+ * @author <a href=https://www.cicirello.org/ target=_top>Vincent A. Cicirello</a>,
+ * <a href=https://www.cicirello.org/ target=_top>https://www.cicirello.org/</a>
+ */
+public class TrialProfile {
+
+	/**
+	 * Runs the profile extraction.
+	 * @param args The path to a recording, optionally followed by the number of
+	 * hot methods listed per trial, and the minimum cpu time, in milliseconds,
+	 * of the trials to list.
+	 * @throws IOException if the recording cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 3) {
+			System.err.println("Usage: TrialProfile recording.jfr [topMethods [minCpuMillis]]");
+			System.exit(2);
+		}
+		final int TOP_METHODS = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		final long MIN_CPU = args.length > 2 ? Long.parseLong(args[2]) * 1000000L : 0L;
+
+		Path path = Paths.get(args[0]);
+		List<RecordedEvent> events = RecordingFile.readAllEvents(path);
+		// Deoptimization events were added in JDK 14, so recordings from
+		// earlier JDKs have no deoptimization counts.
+		boolean hasDeopts;
+		try (RecordingFile recording = new RecordingFile(path)) {
+			hasDeopts = recording.readEventTypes().stream().anyMatch(
+				type -> type.getName().equals("jdk.Deoptimization")
+			);
+		}
+
+		// Trials, in the order they ran, and indexed by thread for matching.
+		ArrayList<Trial> trials = new ArrayList<Trial>();
+		HashMap<Long, ArrayList<Trial>> byThread = new HashMap<Long, ArrayList<Trial>>();
+		for (RecordedEvent e : events) {
+			if (e.getEventType().getName().equals(TrialEvent.NAME)) {
+				Trial t = new Trial(e);
+				trials.add(t);
+				ArrayList<Trial> list = byThread.get(t.thread);
+				if (list == null) {
+					list = new ArrayList<Trial>();
+					byThread.put(t.thread, list);
+				}
+				list.add(t);
+			}
+		}
+		Comparator<Trial> byStart = Comparator.comparing(t -> t.start);
+		Collections.sort(trials, byStart);
+		for (ArrayList<Trial> list : byThread.values()) {
+			Collections.sort(list, byStart);
+		}
+
+		for (RecordedEvent e : events) {
+			switch (e.getEventType().getName()) {
+				case "jdk.ExecutionSample":
+					Trial t = find(byThread, e.getThread("sampledThread"), e.getStartTime());
+					if (t != null) t.addSample(e.getStackTrace());
+					break;
+				case "jdk.SafepointBegin":
+					// Safepoints are begun by the VM thread, and stop every Java
+					// thread, so match on time alone.
+					for (ArrayList<Trial> list : byThread.values()) {
+						t = find(list, e.getStartTime());
+						if (t != null) t.safepoints++;
+					}
+					break;
+				case "jdk.Deoptimization":
+					t = find(byThread, e.getThread(), e.getStartTime());
+					if (t != null) t.deopts++;
+					break;
+				case "jdk.GarbageCollection":
+					// Collections pause every thread, so match on time alone.
+					for (ArrayList<Trial> list : byThread.values()) {
+						t = find(list, e.getStartTime());
+						if (t != null) t.gc = t.gc.plus(e.getDuration("sumOfPauses"));
+					}
+					break;
+				default:
+			}
+		}
+
+		System.out.println("Trial Profile: " + args[0]);
+		System.out.printf("%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\n",
+			"experiment",
+			"L",
+			"R",
+			"sample",
+			"schedule",
+			"cpu",
+			"cost",
+			"samples",
+			"gc",
+			"safepoints",
+			"deopts"
+		);
+		for (Trial t : trials) {
+			if (t.cpuTime < MIN_CPU) continue;
+			System.out.printf("%s\t%d\t%d\t%d\t%s\t%.5f\t%s\t%d\t%.5f\t%d\t%s\n",
+				t.experiment,
+				t.runLength,
+				t.restarts,
+				t.sample,
+				t.schedule,
+				t.cpuTime / 1e9,
+				Double.isNaN(t.cost) ? "-" : String.valueOf(t.cost),
+				t.samples,
+				t.gc.toNanos() / 1e9,
+				t.safepoints,
+				hasDeopts ? String.valueOf(t.deopts) : "-"
+			);
+			ArrayList<Map.Entry<String, Integer>> hot = new ArrayList<Map.Entry<String, Integer>>(t.topFrames.entrySet());
+			hot.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+			for (int i = 0; i < TOP_METHODS && i < hot.size(); i++) {
+				System.out.printf("\t%5.1f%%\t%s\n",
+					100.0 * hot.get(i).getValue() / t.samples,
+					hot.get(i).getKey()
+				);
+			}
+		}
+	}
+
+	private static Trial find(Map<Long, ArrayList<Trial>> byThread, RecordedThread thread, Instant time) {
+		if (thread == null) return null;
+		ArrayList<Trial> list = byThread.get(thread.getJavaThreadId());
+		return list != null ? find(list, time) : null;
+	}
+
+	/*
+	 * Binary search for the trial, among trials sorted by start time that
+	 * do not overlap, that was running at the given time.
+	 */
+	private static Trial find(ArrayList<Trial> list, Instant time) {
+		int lo = 0;
+		int hi = list.size() - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			Trial t = list.get(mid);
+			if (time.isBefore(t.start)) hi = mid - 1;
+			else if (time.isAfter(t.end)) lo = mid + 1;
+			else return t;
+		}
+		return null;
+	}
+
+	private static final class Trial {
+
+		private final long thread;
+		private final Instant start;
+		private final Instant end;
+		private final String experiment;
+		private final long runLength;
+		private final int restarts;
+		private final int sample;
+		private final String schedule;
+		private final long cpuTime;
+		private final double cost;
+		private final HashMap<String, Integer> topFrames;
+		private int samples;
+		private int safepoints;
+		private int deopts;
+		private Duration gc;
+
+		private Trial(RecordedEvent e) {
+			RecordedThread t = e.getThread();
+			thread = t != null ? t.getJavaThreadId() : -1;
+			start = e.getStartTime();
+			end = e.getEndTime();
+			experiment = e.getString("experiment");
+			runLength = e.getLong("runLength");
+			restarts = e.getInt("restarts");
+			sample = e.getInt("sample");
+			schedule = e.getString("schedule");
+			cpuTime = e.getLong("cpuTime");
+			cost = e.getDouble("cost");
+			topFrames = new HashMap<String, Integer>();
+			gc = Duration.ZERO;
+		}
+
+		private void addSample(RecordedStackTrace stack) {
+			samples++;
+			if (stack == null || stack.getFrames().isEmpty()) return;
+			RecordedFrame top = stack.getFrames().get(0);
+			String method = top.getMethod().getType().getName() + "." + top.getMethod().getName();
+			topFrames.merge(method, 1, Integer::sum);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Experiments with the original version, and optimized version,
+ * of the Modified Lam annealing schedule.
+ * Copyright (C) 2020  Vincent A. Cicirello
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.cicirello.experiments.modifiedlam;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * <p>Optional, bounded, continuous Java Flight Recorder recording for
+ * an experiment.  The recording is controlled by system properties:</p>
+ * <ul>
+ * <li>modifiedlam.jfr: The file to which the recording is written when the
+ *     experiment finishes.  If this property is not set, nothing is recorded.</li>
+ * <li>modifiedlam.jfr.settings: The name of the JFR configuration (default "profile",
+ *     which includes the execution samples needed by {@link TrialProfile}). Safepoints
+ *     are recorded regardless of their duration, whatever the configuration.</li>
+ * <li>modifiedlam.jfr.maxage: The maximum age of recorded data, as an ISO-8601
+ *     duration (default PT30M), after which the oldest data is discarded.</li>
+ * <li>modifiedlam.jfr.maxsize: The maximum size of recorded data, in megabytes
+ *     (default 256), after which the oldest data is discarded.</li>
+ * </ul>
+ *
+ * <p>For example: mvn exec:java -Dexec.mainClass=...OneMaxExperiment -Dmodifiedlam.jfr=onemax.jfr</p>
+ *
+ * @author <a href=https://www.cicirello.org/ target=_top>Vincent A. Cicirello</a>,
+ * <a href=https://www.cicirello.org/ target=_top>https://www.cicirello.org/</a>
+ */
+final class TrialRecording {
+
+	private final Recording recording;
+
+	private TrialRecording(Recording recording) {
+		this.recording = recording;
+	}
+
+	/**
+	 * Starts a recording, if the modifiedlam.jfr system property is set.
+	 *
+	 * @param experiment The name of the experiment, used as the name of the recording.
+	 *
+	 * @return The recording, which must be stopped by calling {@link #stop}.
+	 */
+	static TrialRecording start(String experiment) {
+		String destination = System.getProperty("modifiedlam.jfr");
+		if (destination == null) {
+			return new TrialRecording(null);
+		}
+		try {
+			Configuration configuration = Configuration.getConfiguration(
+				System.getProperty("modifiedlam.jfr.settings", "profile")
+			);
+			Recording recording = new Recording(configuration);
+			recording.setName(experiment);
+			recording.setToDisk(true);
+			recording.setMaxAge(Duration.parse(System.getProperty("modifiedlam.jfr.maxage", "PT30M")));
+			recording.setMaxSize(Long.parseLong(System.getProperty("modifiedlam.jfr.maxsize", "256")) * 1024 * 1024);
+			recording.setDestination(Paths.get(destination));
+			recording.enable(TrialEvent.class);
+			// TrialProfile counts every safepoint, but some configurations, such as
+			// default, only record safepoints that take at least 10 ms.
+			recording.enable("jdk.SafepointBegin").withThreshold(Duration.ZERO);
+			recording.start();
+			return new TrialRecording(recording);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException("Invalid JFR configuration.", e);
+		}
+	}
+
+	/**
+	 * Stops the recording, if one was started, which writes it to its destination.
+	 */
+	void stop() {
+		if (recording != null) {
+			recording.stop();
+			recording.close();
+		}
+	}
+}